@@ -0,0 +1,194 @@
+package cz.client;
+
+import java.awt.EventQueue;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.Consumer;
+
+/**
+ * ActionTimer measures how long a single user action takes and breaks the time
+ * down into named phases (fetch, parse, format, paint).
+ *
+ * The timer started on a thread becomes that thread's current timer, so code deep
+ * in the call chain (e.g. the API client) can report phases through
+ * {@link #record(String, long)} without passing the timer around.
+ *
+ * The paint phase only contains the time reported by painting components through
+ * {@link #recordPaint(long)} while a stopped action waits for its result to be painted.
+ */
+public final class ActionTimer {
+
+    public static final String FETCH = "fetch";
+    public static final String PARSE = "parse";
+    public static final String FORMAT = "format";
+    public static final String PAINT = "paint";
+
+    private static final ThreadLocal<ActionTimer> CURRENT = new ThreadLocal<>();
+
+    // Stopped action whose result has not been painted yet, only used on the EDT
+    private static ActionTimer awaitingPaint;
+
+    private final String action;
+    private final long startedAt;   // Wall clock time in milliseconds
+    private final long startNanos;
+    private final Map<String, Long> phases = new LinkedHashMap<>();
+    private long userWaitNanos;     // Time spent waiting for the user, e.g. in a dialog
+    private Consumer<ActionTimer> onFinished;
+
+    private ActionTimer(String action) {
+        this.action = action;
+        this.startedAt = System.currentTimeMillis();
+        this.startNanos = System.nanoTime();
+        phases.put(FETCH, 0L);
+        phases.put(PARSE, 0L);
+        phases.put(FORMAT, 0L);
+        phases.put(PAINT, 0L);
+    }
+
+    /**
+     * Starts timing an action and makes it the current timer of the calling thread.
+     * An earlier action still waiting for its paint is finished first, so the new
+     * action is never counted as its paint.
+     *
+     * @param action The name of the action (e.g. the selected menu item).
+     * @return The started timer.
+     */
+    public static ActionTimer start(String action) {
+        if (EventQueue.isDispatchThread()) {
+            finishAwaitingPaint();
+        }
+        ActionTimer timer = new ActionTimer(action);
+        CURRENT.set(timer);
+        return timer;
+    }
+
+    /**
+     * Adds time to a phase of the current timer of the calling thread.
+     * Does nothing when no action is being timed on this thread.
+     *
+     * @param phase The name of the phase.
+     * @param nanos The elapsed time in nanoseconds.
+     */
+    public static void record(String phase, long nanos) {
+        ActionTimer timer = CURRENT.get();
+        if (timer != null) {
+            timer.addPhase(phase, nanos);
+        }
+    }
+
+    /**
+     * Excludes time spent waiting for the user (e.g. in a modal dialog) from the
+     * current timer of the calling thread, so it is not reported as format time.
+     *
+     * @param nanos The time spent waiting in nanoseconds.
+     */
+    public static void recordUserWait(long nanos) {
+        ActionTimer timer = CURRENT.get();
+        if (timer != null) {
+            synchronized (timer) {
+                timer.userWaitNanos += nanos;
+            }
+        }
+    }
+
+    /**
+     * Adds painting time to the stopped action whose result is waiting to be painted.
+     * Must be called on the EDT; does nothing when no action is waiting.
+     *
+     * @param nanos The time spent painting in nanoseconds.
+     */
+    public static void recordPaint(long nanos) {
+        ActionTimer timer = awaitingPaint;
+        if (timer != null) {
+            timer.addPhase(PAINT, nanos);
+        }
+    }
+
+    /**
+     * Waits on the EDT for the result of this stopped action to be painted, then
+     * passes the timer to the callback. The repaints requested by the action are
+     * already queued, so the callback runs after them, or earlier when another
+     * action starts. Must be called on the EDT.
+     *
+     * @param callback Receives the timer once the paint phase is complete.
+     */
+    public void finishAfterPaint(Consumer<ActionTimer> callback) {
+        finishAwaitingPaint();
+        onFinished = callback;
+        awaitingPaint = this;
+        EventQueue.invokeLater(() -> {
+            if (awaitingPaint == this) {
+                finishAwaitingPaint();
+            }
+        });
+    }
+
+    private static void finishAwaitingPaint() {
+        ActionTimer timer = awaitingPaint;
+        if (timer != null) {
+            awaitingPaint = null;
+            timer.onFinished.accept(timer);
+        }
+    }
+
+    /**
+     * Stops the timer and detaches it from the calling thread. The time not
+     * attributed to fetching or parsing is recorded as the format phase.
+     */
+    public void stop() {
+        long stopNanos = System.nanoTime();
+        if (CURRENT.get() == this) {
+            CURRENT.remove();
+        }
+        synchronized (this) {
+            long other = stopNanos - startNanos - userWaitNanos - phases.get(FETCH) - phases.get(PARSE);
+            phases.put(FORMAT, phases.get(FORMAT) + Math.max(0, other));
+        }
+    }
+
+    /**
+     * Adds time to a phase of this timer.
+     *
+     * @param phase The name of the phase.
+     * @param nanos The elapsed time in nanoseconds.
+     */
+    public synchronized void addPhase(String phase, long nanos) {
+        Long current = phases.get(phase);
+        phases.put(phase, (current == null ? 0 : current) + nanos);
+    }
+
+    public String getAction() {
+        return action;
+    }
+
+    public long getStartedAt() {
+        return startedAt;
+    }
+
+    /**
+     * Returns the total time of the action including the paint phase.
+     *
+     * @return The total time in milliseconds.
+     */
+    public synchronized double getTotalMillis() {
+        long total = 0;
+        for (long nanos : phases.values()) {
+            total += nanos;
+        }
+        return total / 1e6;
+    }
+
+    /**
+     * Returns the time spent in each phase.
+     *
+     * @return An unmodifiable map of phase name to time in milliseconds.
+     */
+    public synchronized Map<String, Double> getPhaseMillis() {
+        Map<String, Double> result = new LinkedHashMap<>();
+        for (Map.Entry<String, Long> entry : phases.entrySet()) {
+            result.put(entry.getKey(), entry.getValue() / 1e6);
+        }
+        return Collections.unmodifiableMap(result);
+    }
+}
@@ -3,9 +3,14 @@ package cz.client;
 import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.Arrays;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.SortedMap;
+import java.util.TreeMap;
 
 import com.google.gson.Gson;
 import com.google.gson.JsonArray;
@@ -22,8 +27,30 @@ import okhttp3.Response;
  */
 public class CountriesCitiesApiClient {
 
-    private final OkHttpClient client; // HTTP client for making requests
-    private final Gson gson;           // Gson library for parsing JSON
+    /**
+     * The Czech Republic and its neighboring countries, as named by the API.
+     */
+    public static final String[] CZ_AND_NEIGHBORS = {"Czech Republic", "Germany", "Austria", "Slovak Republic", "Poland"};
+
+    /**
+     * The name of the region summing the population of CZ_AND_NEIGHBORS.
+     */
+    public static final String CZ_AND_NEIGHBORS_REGION = "CZ & Neighbors";
+
+    /**
+     * ISO3 codes of the World Bank aggregates (regions, income groups, "World")
+     * listed among the countries by the population endpoint.
+     */
+    private static final Set<String> AGGREGATE_CODES = new HashSet<>(Arrays.asList(
+            "AFE", "AFW", "ARB", "CEB", "CSS", "EAP", "EAR", "EAS", "ECA", "ECS", "EMU", "EUU",
+            "FCS", "HIC", "HPC", "IBD", "IBT", "IDA", "IDB", "IDX", "INX", "LAC", "LCN", "LDC",
+            "LIC", "LMC", "LMY", "LTE", "MEA", "MIC", "MNA", "NAC", "OED", "OSS", "PRE", "PSS",
+            "PST", "SAS", "SSA", "SSF", "SST", "TEA", "TEC", "TLA", "TMN", "TSA", "TSS", "UMC",
+            "WLD"));
+
+    private final OkHttpClient client;          // HTTP client for making requests
+    private final Gson gson;                    // Gson library for parsing JSON
+    private final PopulationAnalytics analytics; // Precomputed population aggregates
 
     /**
      * Constructs a new instance of the CountriesCitiesApiClient.
@@ -31,6 +58,8 @@ public class CountriesCitiesApiClient {
     public CountriesCitiesApiClient() {
         this.client = new OkHttpClient();
         this.gson = new Gson();
+        this.analytics = new PopulationAnalytics();
+        analytics.defineRegion(CZ_AND_NEIGHBORS_REGION, PopulationAnalytics.Kind.COUNTRY, CZ_AND_NEIGHBORS);
     }
 
     /**
@@ -45,13 +74,7 @@ public class CountriesCitiesApiClient {
                 .url(url)
                 .build();
 
-        try (Response response = client.newCall(request).execute()) {
-            if (!response.isSuccessful()) {
-                throw new IOException("Unexpected code: " + response);
-            }
-            String responseBody = response.body().string();
-            return gson.fromJson(responseBody, JsonObject.class);
-        }
+        return execute(request);
     }
 
     /**
@@ -71,12 +94,30 @@ public class CountriesCitiesApiClient {
                 .post(requestBody)
                 .build();
 
+        return execute(request);
+    }
+
+    /**
+     * Executes the request and parses the response body into a JsonObject.
+     * The download and parse times are reported to the current ActionTimer.
+     * 
+     * @param request The request to execute.
+     * @return The response as a JsonObject.
+     * @throws IOException If an I/O error occurs during the request.
+     */
+    private JsonObject execute(Request request) throws IOException {
+        long start = System.nanoTime();
         try (Response response = client.newCall(request).execute()) {
             if (!response.isSuccessful()) {
                 throw new IOException("Unexpected code: " + response);
             }
             String responseBody = response.body().string();
-            return gson.fromJson(responseBody, JsonObject.class);
+            long fetched = System.nanoTime();
+            ActionTimer.record(ActionTimer.FETCH, fetched - start);
+
+            JsonObject json = gson.fromJson(responseBody, JsonObject.class);
+            ActionTimer.record(ActionTimer.PARSE, System.nanoTime() - fetched);
+            return json;
         }
     }
 
@@ -106,6 +147,29 @@ public class CountriesCitiesApiClient {
         return response;
     }
 
+    /**
+     * Retrieves historical population data for all countries. Aggregates such as
+     * "World" or "High income" are left out.
+     * 
+     * @return The population data of all countries as a JsonObject.
+     * @throws IOException If an error occurs during the API request.
+     */
+    public JsonObject getPopulationOfAllCountries() throws IOException {
+        String url = "https://countriesnow.space/api/v0.1/countries/population";
+        JsonObject response = get(url);
+        validateResponse(response);
+
+        JsonArray countries = new JsonArray();
+        for (JsonElement element : response.getAsJsonArray("data")) {
+            JsonObject country = element.getAsJsonObject();
+            String iso3 = country.has("iso3") ? country.get("iso3").getAsString() : "";
+            if (AGGREGATE_CODES.contains(iso3)) continue;
+            countries.add(country);
+        }
+        response.add("data", countries);
+        return response;
+    }
+
     /**
      * Retrieves a full list of cities in the Czech Republic.
      * 
@@ -243,17 +307,86 @@ public class CountriesCitiesApiClient {
         return result;
     }
 
+    /**
+     * Converts population records into a series sorted by year, whatever order the
+     * API returns them in. Records split by sex are skipped except for the
+     * "Both Sexes" total.
+     * 
+     * When a year has several records, the most reliable one is kept: a
+     * "Final figure, complete" before any other final figure, and a final figure
+     * before provisional figures and estimates. Records of equal reliability keep
+     * the larger value, so the result does not depend on the record order.
+     * 
+     * @param populationCounts The JSON array of population records.
+     * @return The population by year.
+     */
+    static SortedMap<Integer, Long> toSeries(JsonArray populationCounts) {
+        SortedMap<Integer, Long> series = new TreeMap<>();
+        Map<Integer, Integer> ranks = new HashMap<>();
+        for (JsonElement element : populationCounts) {
+            JsonObject record = element.getAsJsonObject();
+            if (record.has("sex") && !"Both Sexes".equals(record.get("sex").getAsString())) continue;
+
+            int year = Integer.parseInt(record.get("year").getAsString());
+            long value = Long.parseLong(record.get("value").getAsString().replaceAll(",", ""));
+            int rank = reliabilityRank(record);
+
+            Integer keptRank = ranks.get(year);
+            if (keptRank == null || rank > keptRank || (rank == keptRank && value > series.get(year))) {
+                series.put(year, value);
+                ranks.put(year, rank);
+            }
+        }
+        return series;
+    }
+
+    /**
+     * Ranks a population record by the reliability reported by the API
+     * (the field is spelled "reliabilty" there). Higher is more reliable.
+     * 
+     * @param record The population record.
+     * @return 2 for a complete final figure, 1 for another final figure, 0 otherwise.
+     */
+    private static int reliabilityRank(JsonObject record) {
+        String reliability = record.has("reliabilty") ? record.get("reliabilty").getAsString() : "";
+        if (reliability.startsWith("Final figure, complete")) {
+            return 2;
+        } else if (reliability.startsWith("Final figure")) {
+            return 1;
+        }
+        return 0;
+    }
+
+    /**
+     * Builds a comparison entry with the latest population and the growth figures.
+     * 
+     * @param key The name of the property holding the name ("country" or "city").
+     * @param name The name of the country, city or region.
+     * @param aggregates The aggregates of the population series.
+     * @return A JsonObject with the latest population and growth.
+     */
+    private JsonObject toComparisonResult(String key, String name, PopulationAggregates aggregates) {
+        JsonObject result = new JsonObject();
+        result.addProperty(key, name);
+        result.addProperty("latest_year", aggregates.getLatestYear());
+        result.addProperty("population", aggregates.getLatestValue());
+        result.addProperty("growth", aggregates.getGrowth());
+        result.addProperty("growth_percent", aggregates.getPercentGrowth());
+        result.addProperty("cagr", aggregates.getCagr());
+        return result;
+    }
+
     /**
      * Compares population growth from the first to latest year among selected countries.
+     * The last entry is the sum of all the selected countries.
      * 
      * @return A JsonObject containing the population and growth data for selected countries.
      * @throws IOException If an error occurs during the API request.
      */
     public JsonObject comparePopulationsAndGrowths() throws IOException {
-        String[] countries = {"Czech Republic", "Germany", "Austria", "Slovak Republic", "Poland"};
         JsonArray resultArray = new JsonArray();
 
-        for (String country : countries) {
+        for (String country : CZ_AND_NEIGHBORS) {
             String url = "https://countriesnow.space/api/v0.1/countries/population/q?country=" + country.replace(" ", "%20");
             JsonObject response = get(url);
             validateResponse(response);
@@ -261,24 +394,17 @@ public class CountriesCitiesApiClient {
             JsonObject data = response.getAsJsonObject("data");
             JsonArray populationCounts = data.getAsJsonArray("populationCounts");
 
-            if (populationCounts.size() == 0) continue;
-
-            JsonObject latest = populationCounts.get(populationCounts.size() - 1).getAsJsonObject();
-            JsonObject first = populationCounts.get(0).getAsJsonObject();
+            analytics.update(PopulationAnalytics.Kind.COUNTRY, country, toSeries(populationCounts));
+            PopulationAggregates aggregates = analytics.getEntity(PopulationAnalytics.Kind.COUNTRY, country);
 
-            int latestPopulation = latest.get("value").getAsInt();
-            int latestYear = latest.get("year").getAsInt();
-            int firstPopulation = first.get("value").getAsInt();
+            if (aggregates.isEmpty()) continue;
 
-            int growth = latestPopulation - firstPopulation;
-
-            JsonObject countryResult = new JsonObject();
-            countryResult.addProperty("country", country);
-            countryResult.addProperty("latest_year", latestYear);
-            countryResult.addProperty("population", latestPopulation);
-            countryResult.addProperty("growth", growth);
+            resultArray.add(toComparisonResult("country", country, aggregates));
+        }
 
-            resultArray.add(countryResult);
+        PopulationAggregates region = analytics.getRegion(CZ_AND_NEIGHBORS_REGION);
+        if (!region.isEmpty()) {
+            resultArray.add(toComparisonResult("country", CZ_AND_NEIGHBORS_REGION, region));
         }
 
         JsonObject finalResult = new JsonObject();
@@ -314,17 +440,11 @@ public class CountriesCitiesApiClient {
             if (data.has("populationCounts")) {
                 JsonArray populationCounts = data.getAsJsonArray("populationCounts");
 
-                if (populationCounts.size() > 0) {
-                    JsonObject earliest = populationCounts.get(0).getAsJsonObject();
-                    JsonObject latest = populationCounts.get(populationCounts.size() - 1).getAsJsonObject();
-
-                    int earliestVal = Integer.parseInt(earliest.get("value").getAsString().replaceAll(",", ""));
-                    int latestVal = Integer.parseInt(latest.get("value").getAsString().replaceAll(",", ""));
-                    int growth = latestVal - earliestVal;
+                analytics.update(PopulationAnalytics.Kind.CITY, city, toSeries(populationCounts));
+                PopulationAggregates aggregates = analytics.getEntity(PopulationAnalytics.Kind.CITY, city);
 
-                    result.addProperty("latest_year", latest.get("year").getAsString());
-                    result.addProperty("population", latestVal);
-                    result.addProperty("growth", growth);
+                if (!aggregates.isEmpty()) {
+                    result = toComparisonResult("city", city, aggregates);
                 }
             }
 
@@ -0,0 +1,78 @@
+package cz.client;
+
+/**
+ * Implements the Largest-Triangle-Three-Buckets (LTTB) downsampling algorithm,
+ * which reduces a time series to a fixed number of points while preserving its
+ * visual shape (peaks, troughs and turning points).
+ */
+public final class LttbDownsampler {
+
+    private LttbDownsampler() {
+    }
+
+    /**
+     * Selects the indices of the points that should be drawn for the range
+     * [from, to) of the given series.
+     *
+     * @param xs The x coordinates of the series, in ascending order.
+     * @param ys The y coordinates of the series.
+     * @param from The first index of the range (inclusive).
+     * @param to The last index of the range (exclusive).
+     * @param threshold The maximum number of points to keep (at least 3 to downsample).
+     * @param out The array receiving the selected indices; must hold at least
+     *            min(threshold, to - from) elements.
+     * @return The number of indices written to {@code out}.
+     */
+    public static int downsample(double[] xs, double[] ys, int from, int to, int threshold, int[] out) {
+        int count = to - from;
+        if (count <= 0) {
+            return 0;
+        }
+        if (threshold >= count || threshold < 3) {
+            for (int i = 0; i < count; i++) {
+                out[i] = from + i;
+            }
+            return count;
+        }
+
+        // The first and last points are always kept, the rest is split into buckets
+        double bucketSize = (double) (count - 2) / (threshold - 2);
+        int written = 0;
+        int a = from;
+        out[written++] = a;
+
+        for (int i = 0; i < threshold - 2; i++) {
+            // Average point of the next bucket, used as the third triangle vertex
+            int nextStart = from + (int) Math.floor((i + 1) * bucketSize) + 1;
+            int nextEnd = Math.min(from + (int) Math.floor((i + 2) * bucketSize) + 1, to);
+            double avgX = 0;
+            double avgY = 0;
+            for (int j = nextStart; j < nextEnd; j++) {
+                avgX += xs[j];
+                avgY += ys[j];
+            }
+            int nextCount = nextEnd - nextStart;
+            avgX /= nextCount;
+            avgY /= nextCount;
+
+            // Pick the point of the current bucket forming the largest triangle
+            int start = from + (int) Math.floor(i * bucketSize) + 1;
+            int end = from + (int) Math.floor((i + 1) * bucketSize) + 1;
+            double maxArea = -1;
+            int maxIndex = start;
+            for (int j = start; j < end; j++) {
+                double area = Math.abs((xs[a] - avgX) * (ys[j] - ys[a])
+                        - (xs[a] - xs[j]) * (avgY - ys[a]));
+                if (area > maxArea) {
+                    maxArea = area;
+                    maxIndex = j;
+                }
+            }
+            out[written++] = maxIndex;
+            a = maxIndex;
+        }
+
+        out[written++] = to - 1;
+        return written;
+    }
+}
@@ -1,22 +1,38 @@
 package cz.client;
 
 import java.awt.BorderLayout;
+import java.awt.CardLayout;
 import java.awt.HeadlessException;
 import java.awt.event.ActionEvent;
 import java.awt.event.ActionListener;
 import java.awt.image.BufferedImage;
+import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
 import java.net.URL;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.SortedMap;
 
 import javax.swing.ImageIcon;
 import javax.swing.JButton;
 import javax.swing.JComboBox;
+import javax.swing.JFileChooser;
 import javax.swing.JFrame;
 import javax.swing.JLabel;
+import javax.swing.JList;
+import javax.swing.JMenu;
+import javax.swing.JMenuBar;
+import javax.swing.JMenuItem;
+import javax.swing.JOptionPane;
 import javax.swing.JPanel;
 import javax.swing.JScrollPane;
 import javax.swing.JTextArea;
+import javax.swing.ListSelectionModel;
 import javax.swing.SwingUtilities;
 
 import org.apache.batik.transcoder.TranscoderException;
@@ -35,13 +51,20 @@ import com.google.gson.JsonObject;
  */
 public class MainGUI {
 
+    private static final long STALL_THRESHOLD_MS = 100; // Longest acceptable EDT blocking
+
     private static CountriesCitiesApiClient apiClient;
+    private static ResponsivenessMonitor monitor;
+
+    private JsonObject allCountriesPopulation; // Downloaded once, shared by the chart actions
 
     /**
-     * Constructs the MainGUI and initializes the API client.
+     * Constructs the MainGUI, initializes the API client and starts the EDT watchdog.
      */
     public MainGUI() {
         apiClient = new CountriesCitiesApiClient();
+        monitor = new ResponsivenessMonitor(STALL_THRESHOLD_MS);
+        monitor.start();
         createAndShowGUI();
     }
     /**
@@ -62,24 +85,44 @@ public class MainGUI {
             "Countries and Currency",
             "Countries, Currency and Dial Codes",
             "Compare CZ City Populations",
-            "Compare CZ & Neighbor Populations"
+            "Compare CZ & Neighbor Populations",
+            "Population Chart: CZ & Neighbors",
+            "Population Chart: Select Countries",
+            "Population Chart: All Countries"
         };
 
         JComboBox<String> comboBox = new JComboBox<>(actions);
         JButton runButton = new JButton("View");
-        JTextArea outputArea = new JTextArea(20, 60);
+        JTextArea outputArea = new JTextArea(20, 60) {
+            private static final long serialVersionUID = 1L;
+
+            @Override
+            protected void paintComponent(java.awt.Graphics g) {
+                long start = System.nanoTime();
+                super.paintComponent(g);
+                ActionTimer.recordPaint(System.nanoTime() - start);
+            }
+        };
         outputArea.setLineWrap(true);
         outputArea.setWrapStyleWord(true);
         outputArea.setEditable(false);
 
         JScrollPane scrollPane = new JScrollPane(outputArea);
+        PopulationChartPanel chartPanel = new PopulationChartPanel();
+
+        // The center shows either the text output or the population chart
+        CardLayout cards = new CardLayout();
+        JPanel centerPanel = new JPanel(cards);
+        centerPanel.add(scrollPane, "text");
+        centerPanel.add(chartPanel, "chart");
 
         JPanel topPanel = new JPanel();
         topPanel.add(comboBox);
         topPanel.add(runButton);
 
+        frame.setJMenuBar(createDiagnosticsMenuBar(frame));
         frame.add(topPanel, BorderLayout.NORTH);
-        frame.add(scrollPane, BorderLayout.CENTER);
+        frame.add(centerPanel, BorderLayout.CENTER);
 
         // ActionListener to handle button click events
 
@@ -87,6 +130,8 @@ public class MainGUI {
             @Override
             public void actionPerformed(ActionEvent e) {
                 String selected = (String) comboBox.getSelectedItem();
+                cards.show(centerPanel, "text");
+                ActionTimer timer = ActionTimer.start(selected);
                 try {
                     switch (selected) {
                         case "Population of Czech Republic":
@@ -125,15 +170,91 @@ public class MainGUI {
                             JsonArray comparison = comp.getAsJsonArray("country");
                             displayFormattedComparison(comparison, outputArea);
                             break;
+                        case "Population Chart: CZ & Neighbors":
+                            JsonObject neighborsPop = getAllCountriesPopulation();
+                            Set<String> neighbors = new HashSet<>(Arrays.asList(CountriesCitiesApiClient.CZ_AND_NEIGHBORS));
+                            displayPopulationChart(neighborsPop, neighbors, "Population of CZ & Neighbors", chartPanel);
+                            cards.show(centerPanel, "chart");
+                            break;
+                        case "Population Chart: Select Countries":
+                            JsonObject selectPop = getAllCountriesPopulation();
+                            Set<String> chosen = chooseCountries(frame, selectPop);
+                            if (chosen == null || chosen.isEmpty()) {
+                                outputArea.setText("No countries selected.");
+                                break;
+                            }
+                            String chartTitle = chosen.size() == 1
+                                    ? "Population of " + chosen.iterator().next()
+                                    : "Population of Selected Countries";
+                            displayPopulationChart(selectPop, chosen, chartTitle, chartPanel);
+                            cards.show(centerPanel, "chart");
+                            break;
+                        case "Population Chart: All Countries":
+                            JsonObject allPop = getAllCountriesPopulation();
+                            displayPopulationChart(allPop, null, "Population of All Countries", chartPanel);
+                            cards.show(centerPanel, "chart");
+                            break;
                     }
                 } catch (IOException ex) {
                     outputArea.setText("Error: " + ex.getMessage());
+                } finally {
+                    timer.stop();
+                    timer.finishAfterPaint(monitor::recordAction);
                 }
             }
         });
 
         frame.setVisible(true);
     }
+    /**
+     * Creates the menu bar with the Diagnostics menu for viewing, exporting and
+     * resetting the EDT responsiveness report.
+     * 
+     * @param frame The main frame, used as the parent of dialogs.
+     * @return The created JMenuBar.
+     */
+    private JMenuBar createDiagnosticsMenuBar(JFrame frame) {
+        JMenu menu = new JMenu("Diagnostics");
+
+        JMenuItem showItem = new JMenuItem("Responsiveness Report");
+        showItem.addActionListener(e -> {
+            JTextArea reportArea = new JTextArea(monitor.buildReport(), 30, 100);
+            reportArea.setFont(new java.awt.Font("Courier New", java.awt.Font.PLAIN, 12));
+            reportArea.setEditable(false);
+            JFrame reportFrame = new JFrame("Responsiveness Report");
+            reportFrame.setDefaultCloseOperation(JFrame.DISPOSE_ON_CLOSE);
+            reportFrame.add(new JScrollPane(reportArea), BorderLayout.CENTER);
+            reportFrame.pack();
+            reportFrame.setLocationRelativeTo(frame);
+            reportFrame.setVisible(true);
+        });
+
+        JMenuItem exportItem = new JMenuItem("Export Report...");
+        exportItem.addActionListener(e -> {
+            JFileChooser chooser = new JFileChooser();
+            chooser.setSelectedFile(new File("responsiveness-report.txt"));
+            if (chooser.showSaveDialog(frame) == JFileChooser.APPROVE_OPTION) {
+                try {
+                    monitor.exportReport(chooser.getSelectedFile());
+                } catch (IOException ex) {
+                    JOptionPane.showMessageDialog(frame, "Error exporting report: " + ex.getMessage(),
+                            "Export Report", JOptionPane.ERROR_MESSAGE);
+                }
+            }
+        });
+
+        JMenuItem resetItem = new JMenuItem("Reset Statistics");
+        resetItem.addActionListener(e -> monitor.reset());
+
+        menu.add(showItem);
+        menu.add(exportItem);
+        menu.add(resetItem);
+
+        JMenuBar menuBar = new JMenuBar();
+        menuBar.add(menu);
+        return menuBar;
+    }
+
     /**
      * Displays the population data of the Czech Republic in the output area.
      * 
@@ -164,6 +285,88 @@ public class MainGUI {
         outputArea.setText(sb.toString());
     }
     
+    /**
+     * Returns the population data of all countries, downloading it on first use only.
+     * The dataset is large and changes at most yearly, so it is kept for the session.
+     * 
+     * @return The population data of all countries as a JsonObject.
+     * @throws IOException If an error occurs during the API request.
+     */
+    private JsonObject getAllCountriesPopulation() throws IOException {
+        if (allCountriesPopulation == null) {
+            allCountriesPopulation = apiClient.getPopulationOfAllCountries();
+        }
+        return allCountriesPopulation;
+    }
+
+    /**
+     * Lets the user pick one or more countries to chart from the population data.
+     * The Czech Republic and its neighbors are preselected.
+     * 
+     * @param frame The main frame, used as the parent of the dialog.
+     * @param json The JSON object containing population data of all countries.
+     * @return The names of the chosen countries, or null if the dialog was cancelled.
+     */
+    private Set<String> chooseCountries(JFrame frame, JsonObject json) {
+        List<String> names = new ArrayList<>();
+        for (JsonElement elem : json.getAsJsonArray("data")) {
+            names.add(elem.getAsJsonObject().get("country").getAsString());
+        }
+
+        JList<String> list = new JList<>(names.toArray(new String[0]));
+        list.setSelectionMode(ListSelectionModel.MULTIPLE_INTERVAL_SELECTION);
+        list.setVisibleRowCount(15);
+        Set<String> preselected = new HashSet<>(Arrays.asList(CountriesCitiesApiClient.CZ_AND_NEIGHBORS));
+        List<Integer> indices = new ArrayList<>();
+        for (int i = 0; i < names.size(); i++) {
+            if (preselected.contains(names.get(i))) indices.add(i);
+        }
+        list.setSelectedIndices(indices.stream().mapToInt(Integer::intValue).toArray());
+
+        long start = System.nanoTime();
+        int result = JOptionPane.showConfirmDialog(frame, new JScrollPane(list),
+                "Select Countries (Ctrl+click for several)", JOptionPane.OK_CANCEL_OPTION,
+                JOptionPane.PLAIN_MESSAGE);
+        ActionTimer.recordUserWait(System.nanoTime() - start);
+        if (result != JOptionPane.OK_OPTION) {
+            return null;
+        }
+        return new HashSet<>(list.getSelectedValuesList());
+    }
+
+    /**
+     * Displays the population series of the selected countries as a line chart.
+     * 
+     * @param json The JSON object containing population data of all countries.
+     * @param countries The names of the countries to display, or null to display all of them.
+     * @param title The title of the chart.
+     * @param chartPanel The PopulationChartPanel where the series will be drawn.
+     */
+    private void displayPopulationChart(JsonObject json, Set<String> countries, String title,
+            PopulationChartPanel chartPanel) {
+        JsonArray data = json.getAsJsonArray("data");
+        List<PopulationChartPanel.Series> series = new ArrayList<>();
+
+        for (JsonElement elem : data) {
+            JsonObject obj = elem.getAsJsonObject();
+            String country = obj.get("country").getAsString();
+            if (countries != null && !countries.contains(country)) continue;
+
+            SortedMap<Integer, Long> counts = CountriesCitiesApiClient.toSeries(obj.getAsJsonArray("populationCounts"));
+            double[] years = new double[counts.size()];
+            double[] values = new double[counts.size()];
+            int i = 0;
+            for (Map.Entry<Integer, Long> entry : counts.entrySet()) {
+                years[i] = entry.getKey();
+                values[i] = entry.getValue();
+                i++;
+            }
+            series.add(new PopulationChartPanel.Series(country, years, values));
+        }
+
+        chartPanel.setSeries(title, series);
+    }
+
     /**
      * Displays a list of all cities in the Czech Republic in the output area.
      * 
@@ -272,11 +475,11 @@ public class MainGUI {
     
 
         if (isCountry) {
-            sb.append(String.format("%-25s %-8s %-20s %-15s\n", "Country", "Year", "Population", "Growth"));
-            sb.append("----------------------------------------------------------------------\n");
+            sb.append(String.format("%-25s %-8s %-20s %-15s %-10s %-8s\n", "Country", "Year", "Population", "Growth", "Growth %", "CAGR %"));
+            sb.append("-----------------------------------------------------------------------------------------\n");
         } else {
-            sb.append(String.format("%-25s %-8s %-20s %-15s\n", "City", "Year", "Population", "Growth"));
-            sb.append("----------------------------------------------------------------------\n");
+            sb.append(String.format("%-25s %-8s %-20s %-15s %-10s %-8s\n", "City", "Year", "Population", "Growth", "Growth %", "CAGR %"));
+            sb.append("-----------------------------------------------------------------------------------------\n");
         }
     
         for (JsonElement elem : array) {
@@ -286,8 +489,10 @@ public class MainGUI {
             String population = String.format("%,d", obj.get("population").getAsLong());
             long growthVal = obj.get("growth").getAsLong();
             String growth = (growthVal >= 0 ? "+" : "") + String.format("%,d", growthVal);
+            String growthPercent = String.format("%+.1f", obj.get("growth_percent").getAsDouble());
+            String cagr = String.format("%+.2f", obj.get("cagr").getAsDouble());
     
-            sb.append(String.format("%-25s %-8s %-20s %-15s\n", name, year, population, growth));
+            sb.append(String.format("%-25s %-8s %-20s %-15s %-10s %-8s\n", name, year, population, growth, growthPercent, cagr));
         }
     
         outputArea.setText(sb.toString());
@@ -0,0 +1,273 @@
+package cz.client;
+
+import java.util.Arrays;
+
+/**
+ * PopulationAggregates holds the population series of a single country, city or
+ * region together with precomputed prefix structures, so that growth and average
+ * queries over any year range are answered in O(1) without rescanning the series.
+ *
+ * The series is indexed densely by year (slot = year - first year). Years without a
+ * record are kept as gaps and range queries snap to the nearest recorded years inside
+ * the requested range. New years are appended incrementally in O(1) amortized time.
+ */
+public class PopulationAggregates {
+
+    private static final long MISSING = -1;
+
+    private final String name;
+    private int firstYear;
+    private int size;            // Number of slots in use, the last slot is the latest year
+    private long[] values = new long[0];
+    private long[] prefixSums = new long[1];   // Sum of recorded values in slots [0, i)
+    private int[] prefixCounts = new int[1];   // Number of recorded values in slots [0, i)
+    private int[] floor = new int[0];          // Last recorded slot at or before slot i
+    private int[] ceil = new int[0];           // First recorded slot at or after slot i
+
+    /**
+     * Constructs an empty series.
+     *
+     * @param name The name of the country, city or region.
+     */
+    public PopulationAggregates(String name) {
+        this.name = name;
+    }
+
+    /**
+     * Appends the population of a year newer than the latest recorded year.
+     *
+     * @param year The year of the record.
+     * @param value The population in that year.
+     * @throws IllegalArgumentException If the year is not newer than the latest year
+     *                                  or the value is negative.
+     */
+    public void append(int year, long value) {
+        if (value < 0) {
+            throw new IllegalArgumentException("Population cannot be negative: " + value);
+        }
+        if (size == 0) {
+            firstYear = year;
+        } else if (year <= getLatestYear()) {
+            throw new IllegalArgumentException(name + ": year " + year + " is not after " + getLatestYear());
+        }
+
+        int slot = year - firstYear;
+        ensureCapacity(slot + 1);
+        int previous = size - 1;
+        for (int i = size; i < slot; i++) {
+            // Gap between the previous latest year and the new one
+            values[i] = MISSING;
+            floor[i] = previous;
+            ceil[i] = slot;
+            prefixSums[i + 1] = prefixSums[i];
+            prefixCounts[i + 1] = prefixCounts[i];
+        }
+        values[slot] = value;
+        floor[slot] = slot;
+        ceil[slot] = slot;
+        prefixSums[slot + 1] = prefixSums[slot] + value;
+        prefixCounts[slot + 1] = prefixCounts[slot] + 1;
+        size = slot + 1;
+    }
+
+    private void ensureCapacity(int capacity) {
+        if (values.length >= capacity) {
+            return;
+        }
+        int newCapacity = Math.max(capacity, values.length * 2);
+        values = Arrays.copyOf(values, newCapacity);
+        floor = Arrays.copyOf(floor, newCapacity);
+        ceil = Arrays.copyOf(ceil, newCapacity);
+        prefixSums = Arrays.copyOf(prefixSums, newCapacity + 1);
+        prefixCounts = Arrays.copyOf(prefixCounts, newCapacity + 1);
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public int getFirstYear() {
+        checkNotEmpty();
+        return firstYear;
+    }
+
+    public long getFirstValue() {
+        checkNotEmpty();
+        return values[0];
+    }
+
+    public int getLatestYear() {
+        checkNotEmpty();
+        return firstYear + size - 1;
+    }
+
+    public long getLatestValue() {
+        checkNotEmpty();
+        return values[size - 1];
+    }
+
+    /**
+     * Returns the number of years with a population record.
+     *
+     * @return The number of records.
+     */
+    public int getRecordCount() {
+        return prefixCounts[size];
+    }
+
+    /**
+     * Checks whether a population record exists for the given year.
+     *
+     * @param year The year to check.
+     * @return True if the year has a record.
+     */
+    public boolean hasYear(int year) {
+        int slot = year - firstYear;
+        return slot >= 0 && slot < size && values[slot] != MISSING;
+    }
+
+    /**
+     * Returns the population recorded for the given year.
+     *
+     * @param year The year of the record.
+     * @return The population in that year.
+     * @throws IllegalArgumentException If the year has no record.
+     */
+    public long getValue(int year) {
+        if (!hasYear(year)) {
+            throw new IllegalArgumentException(name + ": no population record for " + year);
+        }
+        return values[year - firstYear];
+    }
+
+    /**
+     * Returns the absolute growth from the first to the latest recorded year.
+     *
+     * @return The absolute growth.
+     */
+    public long getGrowth() {
+        return getLatestValue() - getFirstValue();
+    }
+
+    /**
+     * Returns the absolute growth between the recorded years nearest to the range bounds.
+     *
+     * @param fromYear The first year of the range.
+     * @param toYear The last year of the range.
+     * @return The absolute growth within the range.
+     */
+    public long getGrowth(int fromYear, int toYear) {
+        int[] range = resolve(fromYear, toYear);
+        return values[range[1]] - values[range[0]];
+    }
+
+    /**
+     * Returns the growth from the first to the latest recorded year in percent.
+     *
+     * @return The percent growth.
+     */
+    public double getPercentGrowth() {
+        return getPercentGrowth(getFirstYear(), getLatestYear());
+    }
+
+    /**
+     * Returns the growth between the recorded years nearest to the range bounds in percent.
+     *
+     * @param fromYear The first year of the range.
+     * @param toYear The last year of the range.
+     * @return The percent growth within the range, or 0 if the starting population is 0.
+     */
+    public double getPercentGrowth(int fromYear, int toYear) {
+        int[] range = resolve(fromYear, toYear);
+        long start = values[range[0]];
+        return start == 0 ? 0 : (values[range[1]] - start) * 100.0 / start;
+    }
+
+    /**
+     * Returns the compound annual growth rate from the first to the latest recorded year.
+     *
+     * @return The CAGR in percent.
+     */
+    public double getCagr() {
+        return getCagr(getFirstYear(), getLatestYear());
+    }
+
+    /**
+     * Returns the compound annual growth rate between the recorded years nearest to
+     * the range bounds.
+     *
+     * @param fromYear The first year of the range.
+     * @param toYear The last year of the range.
+     * @return The CAGR in percent, or 0 if the range covers a single year or starts at 0.
+     */
+    public double getCagr(int fromYear, int toYear) {
+        int[] range = resolve(fromYear, toYear);
+        int years = range[1] - range[0];
+        long start = values[range[0]];
+        if (years == 0 || start == 0) {
+            return 0;
+        }
+        return (Math.pow((double) values[range[1]] / start, 1.0 / years) - 1) * 100;
+    }
+
+    /**
+     * Returns the average population of the recorded years within the range.
+     *
+     * @param fromYear The first year of the range.
+     * @param toYear The last year of the range.
+     * @return The average population.
+     */
+    public double getAveragePopulation(int fromYear, int toYear) {
+        int[] range = resolve(fromYear, toYear);
+        long sum = prefixSums[range[1] + 1] - prefixSums[range[0]];
+        int count = prefixCounts[range[1] + 1] - prefixCounts[range[0]];
+        return (double) sum / count;
+    }
+
+    /**
+     * Returns the change of population from the previous recorded year to the given year.
+     *
+     * @param year A recorded year other than the first one.
+     * @return The year-over-year delta.
+     * @throws IllegalArgumentException If the year has no record or is the first year.
+     */
+    public long getYearOverYearDelta(int year) {
+        long value = getValue(year);
+        int slot = year - firstYear;
+        if (slot == 0) {
+            throw new IllegalArgumentException(name + ": " + year + " is the first recorded year");
+        }
+        return value - values[floor[slot - 1]];
+    }
+
+    /**
+     * Resolves a year range to the first and last recorded slots inside it.
+     *
+     * @return An array with the first and last slot.
+     * @throws IllegalArgumentException If the range contains no recorded year.
+     */
+    private int[] resolve(int fromYear, int toYear) {
+        checkNotEmpty();
+        int from = fromYear - firstYear;
+        int to = toYear - firstYear;
+        if (from > to || to < 0 || from >= size) {
+            throw new IllegalArgumentException(name + ": no data between " + fromYear + " and " + toYear);
+        }
+        int first = ceil[Math.max(from, 0)];
+        int last = floor[Math.min(to, size - 1)];
+        if (first > last) {
+            throw new IllegalArgumentException(name + ": no data between " + fromYear + " and " + toYear);
+        }
+        return new int[] {first, last};
+    }
+
+    private void checkNotEmpty() {
+        if (size == 0) {
+            throw new IllegalStateException(name + ": no population data");
+        }
+    }
+}
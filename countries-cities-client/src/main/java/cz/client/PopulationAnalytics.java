@@ -0,0 +1,205 @@
+package cz.client;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SortedMap;
+
+/**
+ * PopulationAnalytics keeps precomputed {@link PopulationAggregates} for countries,
+ * cities and regions (sums of several entities, e.g. "CZ & Neighbors").
+ *
+ * Aggregates are built once when a series is first loaded. When refreshed data is
+ * passed in again, only the years newer than the latest known year are appended,
+ * and regions are extended by the years that became available for all their members.
+ * A series whose already known years changed is rebuilt from scratch.
+ */
+public class PopulationAnalytics {
+
+    /**
+     * The kind of entity a series belongs to. Countries and cities are kept apart,
+     * as a city may share its name with a country (e.g. Luxembourg).
+     */
+    public enum Kind {
+        COUNTRY,
+        CITY
+    }
+
+    /**
+     * The members of a region, all of the same kind.
+     */
+    private static class Region {
+        private final Kind kind;
+        private final List<String> members;
+
+        Region(Kind kind, List<String> members) {
+            this.kind = kind;
+            this.members = members;
+        }
+    }
+
+    private final Map<Kind, Map<String, PopulationAggregates>> entities = new EnumMap<>(Kind.class);
+    private final Map<String, Region> regionMembers = new LinkedHashMap<>();
+    private final Map<String, PopulationAggregates> regions = new LinkedHashMap<>();
+
+    /**
+     * Constructs an empty analytics engine.
+     */
+    public PopulationAnalytics() {
+        for (Kind kind : Kind.values()) {
+            entities.put(kind, new LinkedHashMap<>());
+        }
+    }
+
+    /**
+     * Loads or refreshes the population series of a country or city.
+     * The first call builds the aggregates. Later calls append only the years
+     * after the latest known year, unless the series revises or drops a known
+     * year, in which case it is rebuilt. Regions containing the entity are
+     * extended or rebuilt accordingly.
+     *
+     * @param kind Whether the series belongs to a country or a city.
+     * @param name The name of the country or city.
+     * @param series The population by year.
+     * @return The number of years that were added to the aggregates.
+     */
+    public int update(Kind kind, String name, SortedMap<Integer, Long> series) {
+        Map<String, PopulationAggregates> ofKind = entities.get(kind);
+        PopulationAggregates current = ofKind.get(name);
+        int added;
+        boolean rebuilt = current == null || !isExtensionOf(current, series);
+
+        if (rebuilt) {
+            current = new PopulationAggregates(name);
+            for (Map.Entry<Integer, Long> entry : series.entrySet()) {
+                current.append(entry.getKey(), entry.getValue());
+            }
+            ofKind.put(name, current);
+            added = series.size();
+        } else {
+            SortedMap<Integer, Long> newYears = current.isEmpty()
+                    ? series
+                    : series.tailMap(current.getLatestYear() + 1);
+            for (Map.Entry<Integer, Long> entry : newYears.entrySet()) {
+                current.append(entry.getKey(), entry.getValue());
+            }
+            added = newYears.size();
+        }
+
+        if (rebuilt || added > 0) {
+            for (Map.Entry<String, Region> region : regionMembers.entrySet()) {
+                if (region.getValue().kind == kind && region.getValue().members.contains(name)) {
+                    if (rebuilt) {
+                        rebuildRegion(region.getKey());
+                    } else {
+                        extendRegion(region.getKey());
+                    }
+                }
+            }
+        }
+        return added;
+    }
+
+    /**
+     * Checks whether the series only adds years after the latest known year
+     * and agrees with all the years already known.
+     */
+    private static boolean isExtensionOf(PopulationAggregates current, SortedMap<Integer, Long> series) {
+        if (current.isEmpty()) {
+            return true;
+        }
+        SortedMap<Integer, Long> known = series.headMap(current.getLatestYear() + 1);
+        int recorded = 0;
+        for (Map.Entry<Integer, Long> entry : known.entrySet()) {
+            if (!current.hasYear(entry.getKey()) || current.getValue(entry.getKey()) != entry.getValue()) {
+                return false;
+            }
+            recorded++;
+        }
+        // A year missing from the refreshed data also requires a rebuild
+        return recorded == current.getRecordCount();
+    }
+
+    /**
+     * Defines a region as the sum of the given countries or cities. The region only
+     * contains the years for which all members have a record.
+     *
+     * @param name The name of the region.
+     * @param kind Whether the members are countries or cities.
+     * @param members The names of the member countries or cities.
+     */
+    public void defineRegion(String name, Kind kind, String... members) {
+        regionMembers.put(name, new Region(kind, new ArrayList<>(Arrays.asList(members))));
+        rebuildRegion(name);
+    }
+
+    private void rebuildRegion(String name) {
+        regions.put(name, new PopulationAggregates(name));
+        extendRegion(name);
+    }
+
+    /**
+     * Appends to the region the years after its latest year which all members have.
+     */
+    private void extendRegion(String name) {
+        PopulationAggregates region = regions.get(name);
+        List<PopulationAggregates> members = new ArrayList<>();
+        int from = Integer.MIN_VALUE;
+        int to = Integer.MAX_VALUE;
+        Region definition = regionMembers.get(name);
+        for (String member : definition.members) {
+            PopulationAggregates aggregates = entities.get(definition.kind).get(member);
+            if (aggregates == null || aggregates.isEmpty()) {
+                return;
+            }
+            members.add(aggregates);
+            from = Math.max(from, aggregates.getFirstYear());
+            to = Math.min(to, aggregates.getLatestYear());
+        }
+        if (members.isEmpty()) {
+            return;
+        }
+        if (!region.isEmpty()) {
+            from = region.getLatestYear() + 1;
+        }
+
+        for (int year = from; year <= to; year++) {
+            long sum = 0;
+            boolean complete = true;
+            for (PopulationAggregates member : members) {
+                if (!member.hasYear(year)) {
+                    complete = false;
+                    break;
+                }
+                sum += member.getValue(year);
+            }
+            if (complete) {
+                region.append(year, sum);
+            }
+        }
+    }
+
+    /**
+     * Returns the aggregates of a country or city.
+     *
+     * @param kind Whether the series belongs to a country or a city.
+     * @param name The name of the country or city.
+     * @return The aggregates, or null if the series has not been loaded.
+     */
+    public PopulationAggregates getEntity(Kind kind, String name) {
+        return entities.get(kind).get(name);
+    }
+
+    /**
+     * Returns the aggregates of a region.
+     *
+     * @param name The name of the region.
+     * @return The aggregates, or null if the region is not defined.
+     */
+    public PopulationAggregates getRegion(String name) {
+        return regions.get(name);
+    }
+}
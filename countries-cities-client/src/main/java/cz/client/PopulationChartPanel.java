@@ -0,0 +1,427 @@
+package cz.client;
+
+import java.awt.BasicStroke;
+import java.awt.Color;
+import java.awt.Dimension;
+import java.awt.Font;
+import java.awt.FontMetrics;
+import java.awt.Graphics;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.event.MouseAdapter;
+import java.awt.event.MouseEvent;
+import java.awt.event.MouseWheelEvent;
+import java.awt.image.BufferedImage;
+import java.util.ArrayList;
+import java.util.List;
+
+import javax.swing.JPanel;
+
+/**
+ * PopulationChartPanel draws one or many population time series as an interactive
+ * line chart. The user can pan by dragging, zoom with the mouse wheel and reset
+ * the view with a double click.
+ *
+ * Each series is downsampled with {@link LttbDownsampler} so that at most one point
+ * per pixel column is drawn, and the chart is rendered into a reused off-screen
+ * buffer which is only redrawn when the data or the view changes.
+ */
+public class PopulationChartPanel extends JPanel {
+
+    private static final long serialVersionUID = 1L;
+
+    private static final int MARGIN_LEFT = 80;
+    private static final int MARGIN_RIGHT = 20;
+    private static final int MARGIN_TOP = 30;
+    private static final int MARGIN_BOTTOM = 40;
+    private static final int LEGEND_LIMIT = 10; // Legend is only shown for a few series
+    private static final double MIN_SPAN = 2.0;  // Narrowest visible year range
+
+    /**
+     * A single named population series with years in ascending order.
+     */
+    public static class Series {
+        private final String name;
+        private final double[] years;
+        private final double[] values;
+
+        /**
+         * Constructs a new series.
+         *
+         * @param name The name shown in the legend (e.g. country name).
+         * @param years The years of the series in ascending order.
+         * @param values The population values matching the years.
+         */
+        public Series(String name, double[] years, double[] values) {
+            if (years.length != values.length) {
+                throw new IllegalArgumentException("Years and values must have the same length");
+            }
+            this.name = name;
+            this.years = years;
+            this.values = values;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public int size() {
+            return years.length;
+        }
+    }
+
+    private final List<Series> series = new ArrayList<>();
+    private String title = "";
+
+    private double dataMinYear;
+    private double dataMaxYear;
+    private double viewMinYear;
+    private double viewMaxYear;
+
+    private BufferedImage buffer; // Reused off-screen image
+    private boolean dirty = true; // Whether the buffer must be redrawn
+
+    // Scratch arrays reused between redraws to avoid allocations while panning
+    private int[] indices = new int[0];
+    private int[] xPoints = new int[0];
+    private int[] yPoints = new int[0];
+
+    private int dragStartX;
+    private double dragStartMin;
+    private double dragStartMax;
+
+    /**
+     * Constructs an empty chart panel and installs the pan and zoom handlers.
+     */
+    public PopulationChartPanel() {
+        setPreferredSize(new Dimension(700, 450));
+        setBackground(Color.WHITE);
+
+        MouseAdapter mouseHandler = new MouseAdapter() {
+            @Override
+            public void mousePressed(MouseEvent e) {
+                dragStartX = e.getX();
+                dragStartMin = viewMinYear;
+                dragStartMax = viewMaxYear;
+            }
+
+            @Override
+            public void mouseDragged(MouseEvent e) {
+                int plotWidth = getPlotWidth();
+                if (plotWidth <= 0) {
+                    return;
+                }
+                double yearsPerPixel = (dragStartMax - dragStartMin) / plotWidth;
+                double shift = (dragStartX - e.getX()) * yearsPerPixel;
+                setView(dragStartMin + shift, dragStartMax + shift);
+            }
+
+            @Override
+            public void mouseClicked(MouseEvent e) {
+                if (e.getClickCount() == 2) {
+                    resetView();
+                }
+            }
+
+            @Override
+            public void mouseWheelMoved(MouseWheelEvent e) {
+                int plotWidth = getPlotWidth();
+                if (plotWidth <= 0) {
+                    return;
+                }
+                double factor = Math.pow(1.1, e.getPreciseWheelRotation());
+                double anchor = viewMinYear
+                        + (e.getX() - MARGIN_LEFT) * (viewMaxYear - viewMinYear) / plotWidth;
+                setView(anchor - (anchor - viewMinYear) * factor, anchor + (viewMaxYear - anchor) * factor);
+            }
+        };
+        addMouseListener(mouseHandler);
+        addMouseMotionListener(mouseHandler);
+        addMouseWheelListener(mouseHandler);
+    }
+
+    /**
+     * Replaces the displayed series and resets the view to the full year range.
+     *
+     * @param title The title drawn above the chart.
+     * @param newSeries The series to display.
+     */
+    public void setSeries(String title, List<Series> newSeries) {
+        this.title = title;
+        series.clear();
+        series.addAll(newSeries);
+
+        dataMinYear = Double.MAX_VALUE;
+        dataMaxYear = -Double.MAX_VALUE;
+        int maxSize = 0;
+        for (Series s : series) {
+            if (s.size() == 0) continue;
+            dataMinYear = Math.min(dataMinYear, s.years[0]);
+            dataMaxYear = Math.max(dataMaxYear, s.years[s.size() - 1]);
+            maxSize = Math.max(maxSize, s.size());
+        }
+        if (maxSize == 0) {
+            dataMinYear = 0;
+            dataMaxYear = MIN_SPAN;
+        } else if (dataMaxYear - dataMinYear < MIN_SPAN) {
+            dataMinYear -= MIN_SPAN / 2;
+            dataMaxYear += MIN_SPAN / 2;
+        }
+        if (indices.length < maxSize) {
+            indices = new int[maxSize];
+        }
+        resetView();
+    }
+
+    /**
+     * Resets the view to the full year range of the data.
+     */
+    public void resetView() {
+        viewMinYear = dataMinYear;
+        viewMaxYear = dataMaxYear;
+        invalidateBuffer();
+    }
+
+    /**
+     * Sets the visible year range, clamped to the data range.
+     *
+     * @param min The first visible year.
+     * @param max The last visible year.
+     */
+    private void setView(double min, double max) {
+        double dataSpan = dataMaxYear - dataMinYear;
+        double span = Math.max(Math.min(max - min, dataSpan), MIN_SPAN);
+        if (min < dataMinYear) {
+            min = dataMinYear;
+        }
+        if (min + span > dataMaxYear) {
+            min = dataMaxYear - span;
+        }
+        viewMinYear = min;
+        viewMaxYear = min + span;
+        invalidateBuffer();
+    }
+
+    private void invalidateBuffer() {
+        dirty = true;
+        repaint();
+    }
+
+    private int getPlotWidth() {
+        return getWidth() - MARGIN_LEFT - MARGIN_RIGHT;
+    }
+
+    private int getPlotHeight() {
+        return getHeight() - MARGIN_TOP - MARGIN_BOTTOM;
+    }
+
+    @Override
+    protected void paintComponent(Graphics g) {
+        long start = System.nanoTime();
+        super.paintComponent(g);
+        try {
+            paintBuffer(g);
+        } finally {
+            ActionTimer.recordPaint(System.nanoTime() - start);
+        }
+    }
+
+    /**
+     * Redraws the off-screen buffer if needed and copies it to the screen.
+     */
+    private void paintBuffer(Graphics g) {
+        int width = getWidth();
+        int height = getHeight();
+        if (width <= 0 || height <= 0) {
+            return;
+        }
+
+        // Reallocate the buffer only when the panel grows or shrinks
+        if (buffer == null || buffer.getWidth() != width || buffer.getHeight() != height) {
+            buffer = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+            dirty = true;
+        }
+        if (dirty) {
+            Graphics2D g2 = buffer.createGraphics();
+            try {
+                renderChart(g2, width, height);
+            } finally {
+                g2.dispose();
+            }
+            dirty = false;
+        }
+        g.drawImage(buffer, 0, 0, null);
+    }
+
+    /**
+     * Renders the axes, the downsampled series and the legend into the given graphics.
+     */
+    private void renderChart(Graphics2D g2, int width, int height) {
+        g2.setColor(getBackground());
+        g2.fillRect(0, 0, width, height);
+        g2.setFont(new Font("SansSerif", Font.PLAIN, 11));
+        FontMetrics fm = g2.getFontMetrics();
+
+        int plotWidth = getPlotWidth();
+        int plotHeight = getPlotHeight();
+        if (plotWidth <= 0 || plotHeight <= 0) {
+            return;
+        }
+
+        g2.setColor(Color.BLACK);
+        g2.drawString(title, MARGIN_LEFT, MARGIN_TOP - 10);
+
+        if (series.isEmpty()) {
+            g2.drawString("No data", MARGIN_LEFT + plotWidth / 2 - 20, MARGIN_TOP + plotHeight / 2);
+            return;
+        }
+
+        double maxValue = findVisibleMaxValue();
+        drawAxes(g2, fm, plotWidth, plotHeight, maxValue);
+
+        // At most one point per pixel column is drawn for each series
+        int threshold = Math.max(3, plotWidth);
+        if (xPoints.length < threshold) {
+            xPoints = new int[threshold];
+            yPoints = new int[threshold];
+        }
+
+        double xScale = plotWidth / (viewMaxYear - viewMinYear);
+        double yScale = plotHeight / maxValue;
+        int bottom = MARGIN_TOP + plotHeight;
+
+        // Antialiased wide lines are too slow when overlaying hundreds of series
+        boolean fewSeries = series.size() <= LEGEND_LIMIT;
+        g2.setRenderingHint(RenderingHints.KEY_ANTIALIASING,
+                fewSeries ? RenderingHints.VALUE_ANTIALIAS_ON : RenderingHints.VALUE_ANTIALIAS_OFF);
+        g2.setStroke(new BasicStroke(fewSeries ? 2f : 1f));
+        g2.setClip(MARGIN_LEFT, MARGIN_TOP, plotWidth + 1, plotHeight + 1);
+        for (int s = 0; s < series.size(); s++) {
+            Series current = series.get(s);
+            int from = firstVisibleIndex(current);
+            int to = lastVisibleIndex(current);
+            int count = LttbDownsampler.downsample(current.years, current.values, from, to,
+                    threshold, indices);
+            for (int i = 0; i < count; i++) {
+                int index = indices[i];
+                xPoints[i] = MARGIN_LEFT + (int) Math.round((current.years[index] - viewMinYear) * xScale);
+                yPoints[i] = bottom - (int) Math.round(current.values[index] * yScale);
+            }
+            g2.setColor(colorFor(s));
+            g2.drawPolyline(xPoints, yPoints, count);
+        }
+        g2.setClip(null);
+
+        if (fewSeries) {
+            drawLegend(g2, fm);
+        }
+    }
+
+    /**
+     * Returns the index of the last point before the visible range, so the line
+     * enters the plot from its left edge.
+     */
+    private int firstVisibleIndex(Series s) {
+        int i = lowerBound(s.years, viewMinYear);
+        return Math.max(0, i - 1);
+    }
+
+    /**
+     * Returns the exclusive end index including the first point after the visible range.
+     */
+    private int lastVisibleIndex(Series s) {
+        int i = lowerBound(s.years, viewMaxYear);
+        return Math.min(s.size(), i + 1);
+    }
+
+    /**
+     * Binary search returning the first index whose value is not less than the key.
+     */
+    private static int lowerBound(double[] sorted, double key) {
+        int low = 0;
+        int high = sorted.length;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (sorted[mid] < key) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    private double findVisibleMaxValue() {
+        double max = 0;
+        for (Series s : series) {
+            int to = lastVisibleIndex(s);
+            for (int i = firstVisibleIndex(s); i < to; i++) {
+                max = Math.max(max, s.values[i]);
+            }
+        }
+        return max > 0 ? max * 1.05 : 1;
+    }
+
+    private void drawAxes(Graphics2D g2, FontMetrics fm, int plotWidth, int plotHeight, double maxValue) {
+        int bottom = MARGIN_TOP + plotHeight;
+        g2.setColor(Color.LIGHT_GRAY);
+        int ticks = 5;
+        for (int i = 0; i <= ticks; i++) {
+            int y = bottom - i * plotHeight / ticks;
+            g2.drawLine(MARGIN_LEFT, y, MARGIN_LEFT + plotWidth, y);
+            String label = formatPopulation(maxValue * i / ticks);
+            g2.setColor(Color.DARK_GRAY);
+            g2.drawString(label, MARGIN_LEFT - fm.stringWidth(label) - 6, y + fm.getAscent() / 2);
+            g2.setColor(Color.LIGHT_GRAY);
+        }
+
+        int firstYear = (int) Math.ceil(viewMinYear);
+        int lastYear = (int) Math.floor(viewMaxYear);
+        int step = Math.max(1, (int) Math.ceil((lastYear - firstYear) / 10.0));
+        double xScale = plotWidth / (viewMaxYear - viewMinYear);
+        g2.setColor(Color.DARK_GRAY);
+        for (int year = firstYear; year <= lastYear; year += step) {
+            int x = MARGIN_LEFT + (int) Math.round((year - viewMinYear) * xScale);
+            String label = String.valueOf(year);
+            g2.drawLine(x, bottom, x, bottom + 4);
+            g2.drawString(label, x - fm.stringWidth(label) / 2, bottom + 6 + fm.getAscent());
+        }
+
+        g2.setColor(Color.BLACK);
+        g2.drawLine(MARGIN_LEFT, MARGIN_TOP, MARGIN_LEFT, bottom);
+        g2.drawLine(MARGIN_LEFT, bottom, MARGIN_LEFT + plotWidth, bottom);
+    }
+
+    private void drawLegend(Graphics2D g2, FontMetrics fm) {
+        int x = MARGIN_LEFT + 10;
+        int y = MARGIN_TOP + 10;
+        for (int s = 0; s < series.size(); s++) {
+            g2.setColor(colorFor(s));
+            g2.fillRect(x, y + s * (fm.getHeight() + 2), 10, 10);
+            g2.setColor(Color.BLACK);
+            g2.drawString(series.get(s).getName(), x + 15, y + s * (fm.getHeight() + 2) + 10);
+        }
+    }
+
+    /**
+     * Formats a population value in a compact form (e.g. 10.5M, 1.4B).
+     */
+    private static String formatPopulation(double value) {
+        if (value >= 1e9) {
+            return String.format("%.1fB", value / 1e9);
+        } else if (value >= 1e6) {
+            return String.format("%.1fM", value / 1e6);
+        } else if (value >= 1e3) {
+            return String.format("%.0fK", value / 1e3);
+        }
+        return String.format("%.0f", value);
+    }
+
+    /**
+     * Returns a distinct color for the series at the given index using the golden angle.
+     */
+    private static Color colorFor(int index) {
+        float hue = (index * 0.618034f) % 1f;
+        return Color.getHSBColor(hue, 0.75f, 0.85f);
+    }
+}
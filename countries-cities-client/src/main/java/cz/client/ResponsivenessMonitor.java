@@ -0,0 +1,315 @@
+package cz.client;
+
+import java.awt.EventQueue;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.text.SimpleDateFormat;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.Deque;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * ResponsivenessMonitor watches the Event Dispatch Thread (EDT) and reports how
+ * responsive the user interface is.
+ *
+ * A daemon watchdog thread posts a probe event to the EDT about once per threshold
+ * and measures how long it waits before being dispatched. When a probe waits longer than the stall
+ * threshold, the watchdog captures a stack sample of the EDT showing what blocks it.
+ * Completed {@link ActionTimer}s are collected as well, so the report contains both
+ * the dispatch latency statistics and per-action time breakdowns.
+ */
+public class ResponsivenessMonitor {
+
+    private static final int MAX_STALLS = 50;    // Oldest stalls are dropped first
+    private static final int MAX_ACTIONS = 100;  // Oldest actions are dropped first
+    private static final long[] BUCKET_LIMITS_MS = {16, 50, 100, 250, 1000};
+
+    /**
+     * A period during which the EDT did not dispatch events for longer than the threshold.
+     */
+    public static class Stall {
+        private final long startedAt;            // Wall clock time in milliseconds
+        private final StackTraceElement[] stack; // EDT stack sampled at the threshold, may be empty
+        private double durationMillis;
+
+        Stall(long startedAt, StackTraceElement[] stack) {
+            this.startedAt = startedAt;
+            this.stack = stack;
+        }
+
+        public long getStartedAt() {
+            return startedAt;
+        }
+
+        public StackTraceElement[] getStack() {
+            return stack;
+        }
+
+        public double getDurationMillis() {
+            return durationMillis;
+        }
+    }
+
+    private final long thresholdNanos;
+    private final long idleIntervalMillis;    // Delay after posting a probe
+    private final long pendingIntervalMillis; // Delay while a probe is still waiting
+
+    private volatile Thread edtThread;
+    private volatile boolean running;
+    private Thread watchdog;
+
+    // Probe state, guarded by this
+    private long probePostedAt;   // nanoTime of the pending probe, 0 when none is pending
+    private Stall pendingStall;   // Stall sampled for the pending probe
+
+    // Statistics, guarded by this
+    private long probeCount;
+    private long totalLatencyNanos;
+    private long maxLatencyNanos;
+    private final long[] buckets = new long[BUCKET_LIMITS_MS.length + 1];
+    private final Deque<Stall> stalls = new ArrayDeque<>();
+    private final Deque<ActionTimer> actions = new ArrayDeque<>();
+
+    /**
+     * Constructs a monitor that reports a stall when the EDT is blocked longer
+     * than the given threshold.
+     *
+     * @param thresholdMillis The stall threshold in milliseconds.
+     */
+    public ResponsivenessMonitor(long thresholdMillis) {
+        if (thresholdMillis <= 0) {
+            throw new IllegalArgumentException("Threshold must be positive");
+        }
+        this.thresholdNanos = thresholdMillis * 1_000_000L;
+        this.idleIntervalMillis = thresholdMillis;
+        this.pendingIntervalMillis = Math.max(10, thresholdMillis / 5);
+    }
+
+    /**
+     * Starts the watchdog thread. Calling it on a running monitor has no effect.
+     */
+    public synchronized void start() {
+        if (running) {
+            return;
+        }
+        running = true;
+        if (EventQueue.isDispatchThread()) {
+            edtThread = Thread.currentThread();
+        }
+        watchdog = new Thread(this::watch, "EDT-Watchdog");
+        watchdog.setDaemon(true);
+        watchdog.start();
+    }
+
+    /**
+     * Stops the watchdog thread.
+     */
+    public synchronized void stop() {
+        running = false;
+        if (watchdog != null) {
+            watchdog.interrupt();
+            watchdog = null;
+        }
+    }
+
+    /**
+     * The watchdog loop: posts a probe when none is pending and sleeps for the
+     * threshold, so an idle application is only woken about once per threshold.
+     * While a probe is still waiting, it checks more often and samples the EDT
+     * stack once the probe has waited longer than the threshold.
+     */
+    private void watch() {
+        while (running) {
+            long sleepMillis = pendingIntervalMillis;
+            synchronized (this) {
+                long now = System.nanoTime();
+                if (probePostedAt == 0) {
+                    pendingStall = null;
+                    probePostedAt = now;
+                    EventQueue.invokeLater(() -> onProbe(now));
+                    sleepMillis = idleIntervalMillis;
+                } else if (pendingStall == null && now - probePostedAt >= thresholdNanos) {
+                    Thread edt = edtThread;
+                    StackTraceElement[] stack = edt != null ? edt.getStackTrace() : new StackTraceElement[0];
+                    long startedAt = System.currentTimeMillis() - (now - probePostedAt) / 1_000_000L;
+                    pendingStall = new Stall(startedAt, stack);
+                }
+            }
+
+            try {
+                Thread.sleep(sleepMillis);
+            } catch (InterruptedException e) {
+                return;
+            }
+        }
+    }
+
+    /**
+     * Runs on the EDT when a probe is dispatched and records its latency. A probe
+     * which waited at least the threshold is always recorded as a stall, without a
+     * stack sample if it was dispatched before the watchdog could take one.
+     *
+     * @param postedAt The nanoTime at which the probe was posted.
+     */
+    private void onProbe(long postedAt) {
+        long latency = System.nanoTime() - postedAt;
+        edtThread = Thread.currentThread();
+
+        synchronized (this) {
+            Stall stall = pendingStall;
+            pendingStall = null;
+            probePostedAt = 0;
+            if (stall == null && latency >= thresholdNanos) {
+                stall = new Stall(System.currentTimeMillis() - latency / 1_000_000L, new StackTraceElement[0]);
+            }
+
+            probeCount++;
+            totalLatencyNanos += latency;
+            maxLatencyNanos = Math.max(maxLatencyNanos, latency);
+            buckets[bucketIndex(latency / 1_000_000L)]++;
+
+            if (stall != null) {
+                stall.durationMillis = latency / 1e6;
+                stalls.addLast(stall);
+                if (stalls.size() > MAX_STALLS) {
+                    stalls.removeFirst();
+                }
+            }
+        }
+    }
+
+    private static int bucketIndex(long latencyMillis) {
+        for (int i = 0; i < BUCKET_LIMITS_MS.length; i++) {
+            if (latencyMillis < BUCKET_LIMITS_MS[i]) {
+                return i;
+            }
+        }
+        return BUCKET_LIMITS_MS.length;
+    }
+
+    /**
+     * Adds a finished action to the report.
+     *
+     * @param timer The stopped ActionTimer of the action.
+     */
+    public synchronized void recordAction(ActionTimer timer) {
+        actions.addLast(timer);
+        if (actions.size() > MAX_ACTIONS) {
+            actions.removeFirst();
+        }
+    }
+
+    /**
+     * Returns the recorded stalls, oldest first.
+     *
+     * @return A copy of the recorded stalls.
+     */
+    public synchronized List<Stall> getStalls() {
+        return new ArrayList<>(stalls);
+    }
+
+    /**
+     * Returns the number of probes dispatched so far. Used by tests to wait for the
+     * watchdog to find the EDT.
+     *
+     * @return The number of dispatched probes.
+     */
+    synchronized long getProbeCount() {
+        return probeCount;
+    }
+
+    /**
+     * Checks whether the watchdog has sampled the EDT stack for the pending probe.
+     * Used by tests to keep the EDT blocked until the sample is taken.
+     *
+     * @return True if a stall of the pending probe has been sampled.
+     */
+    synchronized boolean isStallSampled() {
+        return pendingStall != null;
+    }
+
+    /**
+     * Clears all collected statistics, stalls and actions.
+     */
+    public synchronized void reset() {
+        probeCount = 0;
+        totalLatencyNanos = 0;
+        maxLatencyNanos = 0;
+        for (int i = 0; i < buckets.length; i++) {
+            buckets[i] = 0;
+        }
+        stalls.clear();
+        actions.clear();
+    }
+
+    /**
+     * Builds a plain text report of the dispatch latency, the recorded stalls
+     * with their stack samples and the per-action time breakdowns.
+     *
+     * @return The report as a String.
+     */
+    public synchronized String buildReport() {
+        SimpleDateFormat time = new SimpleDateFormat("yyyy-MM-dd HH:mm:ss.SSS");
+        StringBuilder sb = new StringBuilder();
+
+        sb.append(String.format("EDT Responsiveness Report (%s)\n", time.format(new Date())));
+        sb.append(String.format("Stall threshold: %d ms\n\n", thresholdNanos / 1_000_000L));
+
+        sb.append("Dispatch latency\n");
+        sb.append("------------------------------------\n");
+        sb.append(String.format("%-20s %d\n", "Probes", probeCount));
+        sb.append(String.format("%-20s %.1f ms\n", "Average",
+                probeCount == 0 ? 0.0 : totalLatencyNanos / 1e6 / probeCount));
+        sb.append(String.format("%-20s %.1f ms\n", "Maximum", maxLatencyNanos / 1e6));
+        for (int i = 0; i < buckets.length; i++) {
+            String label = i < BUCKET_LIMITS_MS.length
+                    ? "< " + BUCKET_LIMITS_MS[i] + " ms"
+                    : ">= " + BUCKET_LIMITS_MS[BUCKET_LIMITS_MS.length - 1] + " ms";
+            sb.append(String.format("%-20s %d\n", label, buckets[i]));
+        }
+
+        sb.append(String.format("\nActions (%d)\n", actions.size()));
+        sb.append("----------------------------------------------------------------------------------------\n");
+        sb.append(String.format("%-12s %-36s %9s %9s %9s %9s %9s\n",
+                "Time", "Action", "Total", "Fetch", "Parse", "Format", "Paint"));
+        SimpleDateFormat clock = new SimpleDateFormat("HH:mm:ss.SSS");
+        for (ActionTimer timer : actions) {
+            Map<String, Double> phases = timer.getPhaseMillis();
+            sb.append(String.format("%-12s %-36s %9.1f %9.1f %9.1f %9.1f %9.1f\n",
+                    clock.format(new Date(timer.getStartedAt())), timer.getAction(), timer.getTotalMillis(),
+                    phases.get(ActionTimer.FETCH), phases.get(ActionTimer.PARSE),
+                    phases.get(ActionTimer.FORMAT), phases.get(ActionTimer.PAINT)));
+        }
+
+        sb.append(String.format("\nStalls (%d)\n", stalls.size()));
+        sb.append("------------------------------------\n");
+        for (Stall stall : stalls) {
+            sb.append(String.format("%s  blocked for %.1f ms\n",
+                    time.format(new Date(stall.startedAt)), stall.durationMillis));
+            if (stall.stack.length == 0) {
+                sb.append("    (no stack sample)\n");
+            }
+            for (StackTraceElement element : stall.stack) {
+                sb.append("    at ").append(element).append('\n');
+            }
+            sb.append('\n');
+        }
+
+        return sb.toString();
+    }
+
+    /**
+     * Writes the report built by {@link #buildReport()} to a file.
+     *
+     * @param file The file to write the report to.
+     * @throws IOException If the file cannot be written.
+     */
+    public void exportReport(File file) throws IOException {
+        Files.write(file.toPath(), buildReport().getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,70 @@
+package cz.client;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+/**
+ * Unit tests for the LttbDownsampler.
+ */
+public class LttbDownsamplerTest {
+
+    @Test
+    public void keepsAllPointsBelowThreshold() {
+        double[] xs = {1, 2, 3, 4};
+        double[] ys = {10, 20, 15, 30};
+        int[] out = new int[4];
+
+        int count = LttbDownsampler.downsample(xs, ys, 0, 4, 10, out);
+
+        assertEquals(4, count);
+        for (int i = 0; i < count; i++) {
+            assertEquals(i, out[i]);
+        }
+    }
+
+    @Test
+    public void capsPointsAndKeepsEndpointsAndPeak() {
+        int n = 1000;
+        double[] xs = new double[n];
+        double[] ys = new double[n];
+        for (int i = 0; i < n; i++) {
+            xs[i] = i;
+            ys[i] = i;
+        }
+        ys[500] = 1_000_000; // A single spike must survive downsampling
+        int[] out = new int[n];
+
+        int count = LttbDownsampler.downsample(xs, ys, 0, n, 50, out);
+
+        assertEquals(50, count);
+        assertEquals(0, out[0]);
+        assertEquals(n - 1, out[count - 1]);
+        boolean hasPeak = false;
+        for (int i = 0; i < count; i++) {
+            if (i > 0) {
+                assertTrue(out[i] > out[i - 1]);
+            }
+            hasPeak |= out[i] == 500;
+        }
+        assertTrue(hasPeak);
+    }
+
+    @Test
+    public void respectsSubRange() {
+        double[] xs = new double[100];
+        double[] ys = new double[100];
+        for (int i = 0; i < 100; i++) {
+            xs[i] = i;
+            ys[i] = Math.sin(i);
+        }
+        int[] out = new int[100];
+
+        int count = LttbDownsampler.downsample(xs, ys, 20, 80, 10, out);
+
+        assertEquals(10, count);
+        assertEquals(20, out[0]);
+        assertEquals(79, out[count - 1]);
+    }
+}
@@ -0,0 +1,140 @@
+package cz.client;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+
+import java.util.SortedMap;
+import java.util.TreeMap;
+
+import org.junit.Test;
+
+import cz.client.PopulationAnalytics.Kind;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonParser;
+
+/**
+ * Unit tests for PopulationAggregates and PopulationAnalytics.
+ */
+public class PopulationAnalyticsTest {
+
+    private static SortedMap<Integer, Long> series(long... yearValuePairs) {
+        SortedMap<Integer, Long> series = new TreeMap<>();
+        for (int i = 0; i < yearValuePairs.length; i += 2) {
+            series.put((int) yearValuePairs[i], yearValuePairs[i + 1]);
+        }
+        return series;
+    }
+
+    @Test
+    public void toSeriesSortsRecordsByYear() {
+        JsonArray records = JsonParser.parseString("["
+                + "{\"year\":\"2013\",\"value\":\"1,246,780\",\"sex\":\"Both Sexes\"},"
+                + "{\"year\":\"2013\",\"value\":\"600,000\",\"sex\":\"Male\"},"
+                + "{\"year\":2001,\"value\":1169106}]").getAsJsonArray();
+
+        SortedMap<Integer, Long> series = CountriesCitiesApiClient.toSeries(records);
+
+        assertEquals(2, series.size());
+        assertEquals(2001, (int) series.firstKey());
+        assertEquals(1169106L, (long) series.get(2001));
+        assertEquals(1246780L, (long) series.get(2013));
+    }
+
+    @Test
+    public void toSeriesPrefersMostReliableRecordOfAYear() {
+        String provisional = "{\"year\":\"2011\",\"value\":\"1,250,000\",\"sex\":\"Both Sexes\","
+                + "\"reliabilty\":\"Provisional figure\"}";
+        String finalFigure = "{\"year\":\"2011\",\"value\":\"1,241,664\",\"sex\":\"Both Sexes\","
+                + "\"reliabilty\":\"Final figure, complete\"}";
+        String estimate = "{\"year\":\"2012\",\"value\":\"1,240,000\",\"reliabilty\":\"Other estimate\"}";
+        String higherEstimate = "{\"year\":\"2012\",\"value\":\"1,245,000\",\"reliabilty\":\"Other estimate\"}";
+
+        SortedMap<Integer, Long> forward = CountriesCitiesApiClient.toSeries(JsonParser.parseString(
+                "[" + provisional + "," + finalFigure + "," + estimate + "," + higherEstimate + "]").getAsJsonArray());
+        SortedMap<Integer, Long> reversed = CountriesCitiesApiClient.toSeries(JsonParser.parseString(
+                "[" + higherEstimate + "," + estimate + "," + finalFigure + "," + provisional + "]").getAsJsonArray());
+
+        assertEquals(1241664L, (long) forward.get(2011));
+        assertEquals(1245000L, (long) forward.get(2012));
+        assertEquals(forward, reversed);
+    }
+
+    @Test
+    public void answersRangeQueriesAcrossGaps() {
+        PopulationAggregates aggregates = new PopulationAggregates("City");
+        aggregates.append(2000, 100);
+        aggregates.append(2001, 110);
+        aggregates.append(2004, 121); // 2002 and 2003 are missing
+        aggregates.append(2005, 200);
+
+        assertEquals(100, aggregates.getGrowth());
+        assertEquals(100.0, aggregates.getPercentGrowth(), 1e-9);
+        assertEquals(21, aggregates.getGrowth(2000, 2004));
+        assertEquals(79, aggregates.getGrowth(2002, 2006)); // Snaps to 2004 and 2005
+        assertEquals(79, aggregates.getYearOverYearDelta(2005));
+        assertEquals(11, aggregates.getYearOverYearDelta(2004));
+        assertEquals((100 + 110 + 121) / 3.0, aggregates.getAveragePopulation(1990, 2004), 1e-9);
+        assertEquals(10.0, aggregates.getCagr(2000, 2001), 1e-9);
+        assertEquals(4, aggregates.getRecordCount());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void rejectsRangeWithoutRecords() {
+        PopulationAggregates aggregates = new PopulationAggregates("City");
+        aggregates.append(2000, 100);
+        aggregates.append(2004, 121);
+        aggregates.getGrowth(2001, 2003);
+    }
+
+    @Test
+    public void appendsOnlyNewYearsAndExtendsRegions() {
+        PopulationAnalytics analytics = new PopulationAnalytics();
+        analytics.defineRegion("Both", Kind.COUNTRY, "A", "B");
+
+        assertEquals(3, analytics.update(Kind.COUNTRY, "A", series(2000, 10, 2001, 11, 2002, 12)));
+        assertEquals(2, analytics.update(Kind.COUNTRY, "B", series(2000, 20, 2001, 21)));
+        PopulationAggregates a = analytics.getEntity(Kind.COUNTRY, "A");
+        PopulationAggregates region = analytics.getRegion("Both");
+        assertEquals(2001, region.getLatestYear());
+        assertEquals(32, region.getLatestValue());
+
+        // Refreshed data with one new year keeps the existing aggregates
+        assertEquals(1, analytics.update(Kind.COUNTRY, "B", series(2000, 20, 2001, 21, 2002, 22)));
+        assertEquals(0, analytics.update(Kind.COUNTRY, "A", series(2000, 10, 2001, 11, 2002, 12)));
+        assertSame(a, analytics.getEntity(Kind.COUNTRY, "A"));
+        assertSame(region, analytics.getRegion("Both"));
+        assertEquals(2002, region.getLatestYear());
+        assertEquals(34, region.getLatestValue());
+        assertEquals(4, region.getGrowth(2000, 2002));
+    }
+
+    @Test
+    public void keepsCitiesApartFromCountriesWithTheSameName() {
+        PopulationAnalytics analytics = new PopulationAnalytics();
+        analytics.defineRegion("Benelux", Kind.COUNTRY, "Luxembourg");
+        analytics.update(Kind.COUNTRY, "Luxembourg", series(2000, 436300, 2001, 441525));
+        PopulationAggregates country = analytics.getEntity(Kind.COUNTRY, "Luxembourg");
+
+        analytics.update(Kind.CITY, "Luxembourg", series(2000, 77000, 2001, 76700));
+
+        assertSame(country, analytics.getEntity(Kind.COUNTRY, "Luxembourg"));
+        assertEquals(441525, country.getLatestValue());
+        assertEquals(76700, analytics.getEntity(Kind.CITY, "Luxembourg").getLatestValue());
+        assertEquals(441525, analytics.getRegion("Benelux").getLatestValue());
+    }
+
+    @Test
+    public void rebuildsWhenKnownYearsAreRevised() {
+        PopulationAnalytics analytics = new PopulationAnalytics();
+        analytics.defineRegion("Both", Kind.COUNTRY, "A", "B");
+        analytics.update(Kind.COUNTRY, "A", series(2000, 10, 2001, 11));
+        analytics.update(Kind.COUNTRY, "B", series(2000, 20, 2001, 21));
+
+        assertEquals(2, analytics.update(Kind.COUNTRY, "A", series(2000, 15, 2001, 11)));
+        assertEquals(35, analytics.getRegion("Both").getFirstValue());
+        assertEquals(-4, analytics.getEntity(Kind.COUNTRY, "A").getGrowth());
+        assertFalse(analytics.getEntity(Kind.COUNTRY, "A").hasYear(2002));
+    }
+}
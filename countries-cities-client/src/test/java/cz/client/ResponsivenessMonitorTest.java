@@ -0,0 +1,126 @@
+package cz.client;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.awt.EventQueue;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+
+import org.junit.Test;
+
+/**
+ * Unit tests for the ResponsivenessMonitor and ActionTimer.
+ */
+public class ResponsivenessMonitorTest {
+
+    /**
+     * Polls the condition until it holds, failing the test after a generous deadline.
+     */
+    private static void waitUntil(BooleanSupplier condition) {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        while (!condition.getAsBoolean()) {
+            if (System.nanoTime() > deadline) {
+                fail("Condition not met before the deadline");
+            }
+            try {
+                Thread.sleep(5);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                fail("Interrupted while waiting");
+            }
+        }
+    }
+
+    @Test
+    public void capturesStackSampleWhenEdtIsBlocked() throws Exception {
+        ResponsivenessMonitor monitor = new ResponsivenessMonitor(50);
+        monitor.start();
+        try {
+            waitUntil(() -> monitor.getProbeCount() > 0); // The watchdog knows the EDT
+            // Block the EDT until the watchdog has sampled it
+            EventQueue.invokeAndWait(() -> waitUntil(monitor::isStallSampled));
+            waitUntil(() -> !monitor.getStalls().isEmpty());
+        } finally {
+            monitor.stop();
+        }
+
+        List<ResponsivenessMonitor.Stall> stalls = monitor.getStalls();
+        assertTrue(stalls.size() >= 1);
+
+        boolean sampledBlockingTask = false;
+        for (ResponsivenessMonitor.Stall stall : stalls) {
+            assertTrue(stall.getDurationMillis() >= 50);
+            for (StackTraceElement element : stall.getStack()) {
+                sampledBlockingTask |= element.getClassName().startsWith(getClass().getName());
+            }
+        }
+        assertTrue(sampledBlockingTask);
+        assertTrue(monitor.buildReport().contains("blocked for"));
+    }
+
+    @Test
+    public void eventQueuedBehindActionIsNotCountedAsPaint() throws Exception {
+        List<ActionTimer> finished = new ArrayList<>();
+        CountDownLatch done = new CountDownLatch(2);
+
+        EventQueue.invokeAndWait(() -> {
+            ActionTimer first = ActionTimer.start("First");
+            // The repaint of the result, then a second click queued during the handler
+            EventQueue.invokeLater(() -> ActionTimer.recordPaint(3_000_000L));
+            EventQueue.invokeLater(() -> {
+                ActionTimer second = ActionTimer.start("Second");
+                try {
+                    Thread.sleep(200);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                second.stop();
+                second.finishAfterPaint(timer -> {
+                    finished.add(timer);
+                    done.countDown();
+                });
+            });
+            first.stop();
+            first.finishAfterPaint(timer -> {
+                finished.add(timer);
+                done.countDown();
+            });
+        });
+
+        assertTrue(done.await(5, TimeUnit.SECONDS));
+        assertEquals("First", finished.get(0).getAction());
+        assertEquals(3.0, finished.get(0).getPhaseMillis().get(ActionTimer.PAINT), 0.001);
+        assertEquals(0.0, finished.get(1).getPhaseMillis().get(ActionTimer.PAINT), 0.001);
+        assertTrue(finished.get(1).getPhaseMillis().get(ActionTimer.FORMAT) >= 150);
+    }
+
+    @Test
+    public void userWaitIsNotCountedAsFormat() throws Exception {
+        ActionTimer timer = ActionTimer.start("Dialog");
+        long start = System.nanoTime();
+        Thread.sleep(50); // The user picking countries in a dialog
+        ActionTimer.recordUserWait(System.nanoTime() - start);
+        timer.stop();
+
+        assertTrue(timer.getPhaseMillis().get(ActionTimer.FORMAT) < 40.0);
+    }
+
+    @Test
+    public void actionTimerAttributesRemainingTimeToFormat() throws Exception {
+        ActionTimer timer = ActionTimer.start("Test");
+        ActionTimer.record(ActionTimer.FETCH, 5_000_000L);
+        ActionTimer.record(ActionTimer.PARSE, 1_000_000L);
+        Thread.sleep(20);
+        timer.stop();
+        ActionTimer.record(ActionTimer.FETCH, 1_000_000_000L); // Ignored once stopped
+
+        assertEquals(5.0, timer.getPhaseMillis().get(ActionTimer.FETCH), 0.001);
+        assertEquals(1.0, timer.getPhaseMillis().get(ActionTimer.PARSE), 0.001);
+        assertTrue(timer.getPhaseMillis().get(ActionTimer.FORMAT) >= 10.0);
+    }
+}